@@ -7,6 +7,8 @@ import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.slf4j.event.Level;
 
+import java.io.OutputStream;
+
 /**
  * Factory responsible for the creation of command executors.
  */
@@ -24,13 +26,75 @@ public class ExecutorFactory {
      * @return The built executor.
      */
     public Executor build(final long executionTimeout) {
+        return this.build(
+                executionTimeout,
+                new OutputLogStream(Level.INFO),
+                new OutputLogStream(Level.ERROR));
+    }
+
+    /**
+     * Builds an executor from which a command can be executed using the default execution timeout value.
+     * @return The built executor.
+     */
+    public Executor build() {
+        return this.build(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Builds an executor whose process waiting, watchdog and stream pumps run on virtual threads, using the specified
+     * execution timeout value.  Falls back to {@link #build(long)} when the runtime does not support virtual threads.
+     * <p>
+     * On virtual threads, output is polled for rather than read with a blocking read: output written by descendants
+     * of the process after it exits is dropped, and output following a pause may be delayed by up to 100 ms.
+     * <p>
+     * Each running process still costs one platform thread: the JDK reaps every child process on its own
+     * "process reaper" thread (with a small, 128 KiB, stack), whichever executor is used.  N concurrent executions
+     * therefore hold N reaper threads, though no longer the 3 per execution that {@link #build(long)} adds.
+     * @param executionTimeout The execution timeout value.
+     * @return The built executor.
+     */
+    public Executor buildVirtual(final long executionTimeout) {
+        return this.buildVirtual(
+                executionTimeout,
+                new OutputLogStream(Level.INFO),
+                new OutputLogStream(Level.ERROR));
+    }
+
+    /**
+     * Builds an executor whose process waiting, watchdog and stream pumps run on virtual threads, using the default
+     * execution timeout value.  Falls back to {@link #build()} when the runtime does not support virtual threads.
+     * @return The built executor.
+     */
+    public Executor buildVirtual() {
+        return this.buildVirtual(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Gets whether the runtime supports virtual threads (JDK 21 or later).
+     * @return True when executors built by {@link #buildVirtual(long)} run on virtual threads.
+     */
+    public boolean isVirtualThreadSupported() {
+        return VirtualThreadExecutors.isSupported();
+    }
+
+    /**
+     * Builds an executor that pumps the process output to the specified streams.  Facilitates testing.
+     * @param executionTimeout The execution timeout value.
+     * @param out The stream to which the process output is pumped.
+     * @param err The stream to which the process error output is pumped.
+     * @return The built executor.
+     */
+    Executor build(
+            final long executionTimeout,
+            final OutputStream out,
+            final OutputStream err) {
         final DefaultExecutor executor = new DefaultExecutor();
 
         final ExecuteWatchdog executeWatchdog = new ExecuteWatchdog(executionTimeout);
 
         final PumpStreamHandler pumpStreamHandler = new PumpStreamHandler(
-                new OutputLogStream(Level.INFO),
-                new OutputLogStream(Level.ERROR));
+                out,
+                err);
 
         executor.setWatchdog(executeWatchdog);
         executor.setStreamHandler(pumpStreamHandler);
@@ -39,10 +103,20 @@ public class ExecutorFactory {
     }
 
     /**
-     * Builds an executor from which a command can be executed using the default execution timeout value.
+     * Builds an executor backed by virtual threads, where supported, that pumps the process output to the specified
+     * streams.  Facilitates testing.
+     * @param executionTimeout The execution timeout value.
+     * @param out The stream to which the process output is pumped.
+     * @param err The stream to which the process error output is pumped.
      * @return The built executor.
      */
-    public Executor build() {
-        return this.build(DEFAULT_TIMEOUT);
+    Executor buildVirtual(
+            final long executionTimeout,
+            final OutputStream out,
+            final OutputStream err) {
+        return VirtualThreadExecutors.build(
+                executionTimeout,
+                out,
+                err);
     }
 }
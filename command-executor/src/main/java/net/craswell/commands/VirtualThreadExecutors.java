@@ -0,0 +1,50 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.Executor;
+import org.apache.commons.exec.PumpStreamHandler;
+
+import java.io.OutputStream;
+
+/**
+ * Builds executors whose waiting, watchdog and stream pump work run on virtual threads.  Virtual threads are not
+ * available on this runtime, so platform thread executors are built instead; the JDK 21 version of this class is
+ * selected from the multi-release JAR when they are.
+ */
+final class VirtualThreadExecutors {
+    /**
+     * Prevents instantiation.
+     */
+    private VirtualThreadExecutors() {
+    }
+
+    /**
+     * Gets whether the runtime supports virtual threads.
+     * @return Always false on this runtime.
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Builds an executor backed by platform threads, as virtual threads are not supported on this runtime.
+     * @param executionTimeout The execution timeout value.
+     * @param out The stream to which the process output is pumped.
+     * @param err The stream to which the process error output is pumped.
+     * @return The built executor.
+     */
+    static Executor build(
+            final long executionTimeout,
+            final OutputStream out,
+            final OutputStream err) {
+        final DefaultExecutor executor = new DefaultExecutor();
+
+        executor.setWatchdog(new ExecuteWatchdog(executionTimeout));
+        executor.setStreamHandler(new PumpStreamHandler(
+                out,
+                err));
+
+        return executor;
+    }
+}
@@ -0,0 +1,50 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * An executor that runs asynchronous executions on virtual threads, and whose processes' output can be pumped without
+ * blocking a platform thread.
+ */
+class VirtualThreadExecutor
+        extends DefaultExecutor {
+    /**
+     * Creates the thread used for asynchronous executions.
+     * @param runnable The runnable to be executed.
+     * @param name The thread name.
+     * @return An unstarted virtual thread.
+     */
+    @Override
+    protected Thread createThread(
+            final Runnable runnable,
+            final String name) {
+        return Thread.ofVirtual()
+                .name(name)
+                .unstarted(runnable);
+    }
+
+    /**
+     * Launches the process, wrapping it so that its output streams poll rather than block on the pipes.
+     * @param command The command to be launched.
+     * @param env The environment for the process.
+     * @param dir The working directory for the process.
+     * @return The launched process.
+     * @throws IOException Thrown when the process could not be launched.
+     */
+    @Override
+    protected Process launch(
+            final CommandLine command,
+            final Map<String, String> env,
+            final File dir)
+            throws IOException {
+        return new VirtualThreadProcess(super.launch(
+                command,
+                env,
+                dir));
+    }
+}
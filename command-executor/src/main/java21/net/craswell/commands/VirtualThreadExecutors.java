@@ -0,0 +1,46 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.Executor;
+
+import java.io.OutputStream;
+
+/**
+ * Builds executors whose waiting, watchdog and stream pump work run on virtual threads.  This is the JDK 21 version
+ * of the class, selected from the multi-release JAR.
+ */
+final class VirtualThreadExecutors {
+    /**
+     * Prevents instantiation.
+     */
+    private VirtualThreadExecutors() {
+    }
+
+    /**
+     * Gets whether the runtime supports virtual threads.
+     * @return Always true on this runtime.
+     */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Builds an executor backed by virtual threads.
+     * @param executionTimeout The execution timeout value.
+     * @param out The stream to which the process output is pumped.
+     * @param err The stream to which the process error output is pumped.
+     * @return The built executor.
+     */
+    static Executor build(
+            final long executionTimeout,
+            final OutputStream out,
+            final OutputStream err) {
+        final VirtualThreadExecutor executor = new VirtualThreadExecutor();
+
+        executor.setWatchdog(new VirtualThreadWatchdog(executionTimeout));
+        executor.setStreamHandler(new VirtualThreadPumpStreamHandler(
+                out,
+                err));
+
+        return executor;
+    }
+}
@@ -0,0 +1,154 @@
+package net.craswell.commands;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A process whose output streams are swapped for {@link VirtualThreadProcessInputStream}s, which poll rather than
+ * block on the pipes.  Everything else is delegated to the wrapped process.
+ */
+class VirtualThreadProcess
+        extends Process {
+    /**
+     * The wrapped process.
+     */
+    private final Process process;
+
+    /**
+     * Completes when the wrapped process exits.
+     */
+    private final CompletableFuture<Process> exit;
+
+    /**
+     * The standard output of the process.
+     */
+    private final InputStream inputStream;
+
+    /**
+     * The standard error of the process.
+     */
+    private final InputStream errorStream;
+
+    /**
+     * Initializes a new instance of the VirtualThreadProcess class.
+     * @param process The process to be wrapped.
+     */
+    VirtualThreadProcess(final Process process) {
+        this.process = process;
+        this.exit = process.onExit();
+        this.inputStream = new VirtualThreadProcessInputStream(
+                process.getInputStream(),
+                this.exit);
+        this.errorStream = new VirtualThreadProcessInputStream(
+                process.getErrorStream(),
+                this.exit);
+    }
+
+    @Override
+    public int waitFor()
+            throws InterruptedException {
+        return this.getProcess().waitFor();
+    }
+
+    @Override
+    public boolean waitFor(
+            final long timeout,
+            final TimeUnit unit)
+            throws InterruptedException {
+        return this.getProcess().waitFor(
+                timeout,
+                unit);
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return this.getProcess().getOutputStream();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return this.inputStream;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        return this.errorStream;
+    }
+
+    @Override
+    public int exitValue() {
+        return this.getProcess().exitValue();
+    }
+
+    @Override
+    public void destroy() {
+        this.getProcess().destroy();
+    }
+
+    @Override
+    public Process destroyForcibly() {
+        this.getProcess().destroyForcibly();
+
+        return this;
+    }
+
+    @Override
+    public boolean supportsNormalTermination() {
+        return this.getProcess().supportsNormalTermination();
+    }
+
+    @Override
+    public boolean isAlive() {
+        return this.getProcess().isAlive();
+    }
+
+    @Override
+    public long pid() {
+        return this.getProcess().pid();
+    }
+
+    @Override
+    public CompletableFuture<Process> onExit() {
+        return this.getExit()
+                .thenApply(exited -> this);
+    }
+
+    @Override
+    public ProcessHandle toHandle() {
+        return this.getProcess().toHandle();
+    }
+
+    @Override
+    public ProcessHandle.Info info() {
+        return this.getProcess().info();
+    }
+
+    @Override
+    public Stream<ProcessHandle> children() {
+        return this.getProcess().children();
+    }
+
+    @Override
+    public Stream<ProcessHandle> descendants() {
+        return this.getProcess().descendants();
+    }
+
+    /**
+     * Gets the wrapped process.
+     * @return The wrapped process.
+     */
+    private Process getProcess() {
+        return this.process;
+    }
+
+    /**
+     * Gets the future that completes when the wrapped process exits.
+     * @return The future that completes when the wrapped process exits.
+     */
+    private CompletableFuture<Process> getExit() {
+        return this.exit;
+    }
+}
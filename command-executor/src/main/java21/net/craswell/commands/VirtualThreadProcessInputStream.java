@@ -0,0 +1,148 @@
+package net.craswell.commands;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A process output stream that only reads once bytes are available, and ends once none are and the process has
+ * exited; it never reads with none available.  A read blocked on a pipe pins the carrier of a virtual thread (and the
+ * scheduler compensates with another platform thread); parking on the process exit future between polls does not.
+ * <p>
+ * The tradeoffs, relative to a blocking read:
+ * <ul>
+ *     <li>The stream ends once the process has exited and no bytes are available, whether still in the pipe or
+ *     drained from it by the JDK.  Output written afterwards by descendants of the process (e.g. a backgrounded shell
+ *     job) is therefore always dropped; with a blocking read it is kept unless the JDK drains and closes the pipe
+ *     first.</li>
+ *     <li>While the process is quiet, each stream polls {@link InputStream#available()} with a back-off of up to
+ *     {@link #MAX_POLL_INTERVAL} milliseconds, so output that follows a pause may be delayed by as much, and each
+ *     quiet execution costs up to 2 wake-ups per interval.</li>
+ * </ul>
+ */
+class VirtualThreadProcessInputStream
+        extends FilterInputStream {
+    /**
+     * The initial time to wait for the process exit between polls, in milliseconds.
+     */
+    private static final long MIN_POLL_INTERVAL = 1L;
+
+    /**
+     * The maximum time to wait for the process exit between polls, in milliseconds.
+     */
+    private static final long MAX_POLL_INTERVAL = 100L;
+
+    /**
+     * Completes when the process exits.
+     */
+    private final CompletableFuture<Process> exit;
+
+    /**
+     * Initializes a new instance of the VirtualThreadProcessInputStream class.
+     * @param in The process output stream.
+     * @param exit Completes when the process exits.
+     */
+    VirtualThreadProcessInputStream(
+            final InputStream in,
+            final CompletableFuture<Process> exit) {
+        super(in);
+        this.exit = exit;
+    }
+
+    /**
+     * Reads a byte, once one is available.
+     * @return The byte read, or -1 once the process has exited and no bytes are available.
+     * @throws IOException Thrown when a problem occurs during the read.
+     */
+    @Override
+    public int read()
+            throws IOException {
+        if (!this.awaitAvailable()) {
+            return -1;
+        }
+
+        return super.read();
+    }
+
+    /**
+     * Reads up to the specified number of bytes, once some are available.
+     * @param b The buffer into which the bytes are read.
+     * @param off The offset in the buffer at which the bytes are written.
+     * @param len The maximum number of bytes to read.
+     * @return The number of bytes read, or -1 once the process has exited and no bytes are available.
+     * @throws IOException Thrown when a problem occurs during the read.
+     */
+    @Override
+    public int read(
+            final byte[] b,
+            final int off,
+            final int len)
+            throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!this.awaitAvailable()) {
+            return -1;
+        }
+
+        // Does not block: the underlying stream reads only what is available once some bytes are.
+        return super.read(
+                b,
+                off,
+                len);
+    }
+
+    /**
+     * Waits until bytes are available or the process has exited, backing off between polls while it is quiet.  A read
+     * with none available could block even after the exit: the pipe stays open while a descendant holds it, and a
+     * blocked read would also hold off the JDK draining it.
+     * @return True when bytes are available; false when the process has exited and none are.
+     * @throws IOException Thrown when a problem occurs while polling, or the wait is interrupted.
+     */
+    private boolean awaitAvailable()
+            throws IOException {
+        long pollInterval = MIN_POLL_INTERVAL;
+
+        while (true) {
+            if (super.available() > 0) {
+                return true;
+            }
+
+            if (this.getExit().isDone()) {
+                // All the exited process wrote is available, whether still in the pipe or drained from it.
+                return super.available() > 0;
+            }
+
+            try {
+                this.getExit().get(
+                        pollInterval,
+                        TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                pollInterval = Math.min(
+                        pollInterval * 2L,
+                        MAX_POLL_INTERVAL);
+            } catch (ExecutionException e) {
+                return super.available() > 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new IOException(
+                        "Interrupted while waiting for process output.",
+                        e);
+            }
+        }
+    }
+
+    /**
+     * Gets the future that completes when the process exits.
+     * @return The future that completes when the process exits.
+     */
+    private CompletableFuture<Process> getExit() {
+        return this.exit;
+    }
+}
@@ -0,0 +1,55 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.exec.StreamPumper;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A stream handler whose pumps run on virtual threads.
+ */
+class VirtualThreadPumpStreamHandler
+        extends PumpStreamHandler {
+    /**
+     * The name given to pump threads, matching the name used by the parent class.
+     */
+    private static final String PUMP_THREAD_NAME = "Exec Stream Pumper";
+
+    /**
+     * The pump buffer size.  Larger than the default of the parent class, as each read is preceded by a poll.
+     */
+    private static final int PUMP_BUFFER_SIZE = 8192;
+
+    /**
+     * Initializes a new instance of the VirtualThreadPumpStreamHandler class.
+     * @param out The stream to which the process output is pumped.
+     * @param err The stream to which the process error output is pumped.
+     */
+    VirtualThreadPumpStreamHandler(
+            final OutputStream out,
+            final OutputStream err) {
+        super(out, err);
+    }
+
+    /**
+     * Creates a pump that copies an input stream to an output stream on a virtual thread.
+     * @param is The input stream to copy from.
+     * @param os The output stream to copy to.
+     * @param closeWhenExhausted Whether to close the output stream when the input stream is exhausted.
+     * @return An unstarted virtual thread.
+     */
+    @Override
+    protected Thread createPump(
+            final InputStream is,
+            final OutputStream os,
+            final boolean closeWhenExhausted) {
+        return Thread.ofVirtual()
+                .name(PUMP_THREAD_NAME)
+                .unstarted(new StreamPumper(
+                        is,
+                        os,
+                        closeWhenExhausted,
+                        PUMP_BUFFER_SIZE));
+    }
+}
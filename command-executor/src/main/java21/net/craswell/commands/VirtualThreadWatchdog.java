@@ -0,0 +1,85 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.ExecuteWatchdog;
+
+/**
+ * A watchdog whose timer runs on a virtual thread.  The parent class is constructed without a timeout so that it does
+ * not start its own platform watchdog thread; the timeout is enforced here instead.
+ */
+class VirtualThreadWatchdog
+        extends ExecuteWatchdog {
+    /**
+     * The name given to timer threads, matching the name used by the parent class.
+     */
+    private static final String TIMER_THREAD_NAME = "WATCHDOG";
+
+    /**
+     * The execution timeout value.
+     */
+    private final long timeout;
+
+    /**
+     * The timer of the process currently watched; null when not watching.
+     */
+    private Thread timer;
+
+    /**
+     * Initializes a new instance of the VirtualThreadWatchdog class.
+     * @param timeout The execution timeout value, or {@link ExecuteWatchdog#INFINITE_TIMEOUT}.
+     */
+    VirtualThreadWatchdog(final long timeout) {
+        super(INFINITE_TIMEOUT);
+
+        if (timeout != INFINITE_TIMEOUT
+                && timeout < 1) {
+            throw new IllegalArgumentException("The timeout was less than 1 millisecond.");
+        }
+
+        this.timeout = timeout;
+    }
+
+    /**
+     * Watches the process, destroying it if it has not exited when the timeout elapses.
+     * @param process The process to be watched.
+     */
+    @Override
+    public synchronized void start(final Process process) {
+        super.start(process);
+
+        if (this.timeout != INFINITE_TIMEOUT) {
+            this.timer = Thread.ofVirtual()
+                    .name(TIMER_THREAD_NAME)
+                    .start(this::awaitTimeout);
+        }
+    }
+
+    /**
+     * Stops watching the process.
+     */
+    @Override
+    public synchronized void stop() {
+        super.stop();
+
+        if (this.timer != null) {
+            this.timer.interrupt();
+            this.timer = null;
+        }
+    }
+
+    /**
+     * Sleeps for the timeout, then destroys the process unless watching was stopped (or restarted) in the meantime.
+     */
+    private void awaitTimeout() {
+        try {
+            Thread.sleep(this.timeout);
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        synchronized (this) {
+            if (this.timer == Thread.currentThread()) {
+                this.timeoutOccured(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.Executor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs against the packaged multi-release JAR, so that the JDK 21 executors are the ones under test.
+ */
+class ExecutorScalingIT {
+    private static final String SLEEP_BIN = "/bin/sleep";
+    private static final String SLEEP_SECONDS = "2";
+    private static final long SETTLE_MILLIS = 1000L;
+    private static final long COMPLETION_TIMEOUT_MILLIS = 30L * 1000L;
+    private static final long EXECUTION_TIMEOUT_MILLIS = 500L;
+
+    /**
+     * The second execution on a reused executor starts this long after the first, and runs for 1.5 seconds: 500 ms past
+     * the first execution's deadline, and 500 ms short of its own.
+     */
+    private static final long REUSED_EXECUTION_TIMEOUT_MILLIS = 2000L;
+    private static final long REUSED_EXECUTION_GAP_MILLIS = 1000L;
+    private static final String REUSED_EXECUTION_SLEEP_SECONDS = "1.5";
+
+    /**
+     * The JDK starts one of these per child process, whichever executor is used.
+     */
+    private static final String PROCESS_REAPER_THREAD_NAME_PREFIX = "process reaper";
+
+    private static final int LOW_CONCURRENCY = 50;
+    private static final int HIGH_CONCURRENCY = 400;
+
+    private static final ExecutorFactory EXECUTOR_FACTORY = new ExecutorFactory();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Test
+    void platformThreadCountStaysFlatAsConcurrencyGrows()
+            throws IOException, InterruptedException {
+        Assertions.assertTrue(EXECUTOR_FACTORY.isVirtualThreadSupported());
+
+        // Warms up the carrier pool and the slf4j/commons-exec class loading.
+        this.countPlatformThreadsWhileExecuting(LOW_CONCURRENCY);
+
+        final ThreadCounts lowCounts = this.countPlatformThreadsWhileExecuting(LOW_CONCURRENCY);
+        final ThreadCounts highCounts = this.countPlatformThreadsWhileExecuting(HIGH_CONCURRENCY);
+
+        this.logger.info(
+                "Platform threads: {} plus {} process reapers at {} executions, {} plus {} process reapers at {} "
+                        + "executions.",
+                lowCounts.getOthers(),
+                lowCounts.getReapers(),
+                LOW_CONCURRENCY,
+                highCounts.getOthers(),
+                highCounts.getReapers(),
+                HIGH_CONCURRENCY);
+
+        // Platform executors would add 3 threads (watchdog and 2 pumps) per execution.
+        Assertions.assertTrue(
+                highCounts.getOthers() - lowCounts.getOthers() <= Runtime.getRuntime().availableProcessors(),
+                String.format(
+                        "Platform threads, excluding process reapers, grew from %d to %d.",
+                        lowCounts.getOthers(),
+                        highCounts.getOthers()));
+    }
+
+    @Test
+    void watchdogDestroysProcessAfterTimeout() {
+        Assertions.assertTrue(EXECUTOR_FACTORY.isVirtualThreadSupported());
+
+        final CommandLine commandLine = CommandLine.parse(SLEEP_BIN);
+        commandLine.addArgument("10");
+
+        final Executor executor = EXECUTOR_FACTORY.buildVirtual(
+                EXECUTION_TIMEOUT_MILLIS,
+                new ByteArrayOutputStream(),
+                new ByteArrayOutputStream());
+
+        Assertions.assertThrows(
+                ExecuteException.class,
+                () -> executor.execute(commandLine));
+
+        Assertions.assertTrue(
+                executor.getWatchdog().killedProcess());
+    }
+
+    @Test
+    void watchdogTimerOfEarlierExecutionDoesNotDestroyLaterProcess()
+            throws IOException, InterruptedException {
+        Assertions.assertTrue(EXECUTOR_FACTORY.isVirtualThreadSupported());
+
+        final Executor executor = EXECUTOR_FACTORY.buildVirtual(
+                REUSED_EXECUTION_TIMEOUT_MILLIS,
+                new ByteArrayOutputStream(),
+                new ByteArrayOutputStream());
+
+        final CommandLine quickCommandLine = CommandLine.parse(SLEEP_BIN);
+        quickCommandLine.addArgument("0");
+
+        Assertions.assertEquals(
+                0,
+                executor.execute(quickCommandLine));
+
+        Thread.sleep(REUSED_EXECUTION_GAP_MILLIS);
+
+        final CommandLine slowCommandLine = CommandLine.parse(SLEEP_BIN);
+        slowCommandLine.addArgument(REUSED_EXECUTION_SLEEP_SECONDS);
+
+        Assertions.assertEquals(
+                0,
+                executor.execute(slowCommandLine));
+
+        Assertions.assertFalse(
+                executor.getWatchdog().killedProcess());
+    }
+
+    /**
+     * Starts the specified number of concurrent executions, counts the live platform threads once they are all
+     * waiting, then waits for them all to complete successfully.
+     * @param concurrency The number of concurrent executions.
+     * @return The number of live platform threads.
+     */
+    private ThreadCounts countPlatformThreadsWhileExecuting(final int concurrency)
+            throws IOException, InterruptedException {
+        final List<DefaultExecuteResultHandler> resultHandlers = new ArrayList<>();
+
+        for (int i = 0; i < concurrency; i++) {
+            final CommandLine commandLine = CommandLine.parse(SLEEP_BIN);
+            commandLine.addArgument(SLEEP_SECONDS);
+
+            // Not the default log streams: each execution would log its (empty) output on completion.
+            final Executor executor = EXECUTOR_FACTORY.buildVirtual(
+                    COMPLETION_TIMEOUT_MILLIS,
+                    new ByteArrayOutputStream(),
+                    new ByteArrayOutputStream());
+            final DefaultExecuteResultHandler resultHandler = new DefaultExecuteResultHandler();
+
+            executor.execute(
+                    commandLine,
+                    resultHandler);
+
+            resultHandlers.add(resultHandler);
+        }
+
+        Thread.sleep(SETTLE_MILLIS);
+
+        final ThreadCounts platformThreadCounts = this.countPlatformThreads();
+
+        for (final DefaultExecuteResultHandler resultHandler : resultHandlers) {
+            resultHandler.waitFor(COMPLETION_TIMEOUT_MILLIS);
+
+            Assertions.assertTrue(
+                    resultHandler.hasResult());
+
+            Assertions.assertEquals(
+                    0,
+                    resultHandler.getExitValue());
+        }
+
+        return platformThreadCounts;
+    }
+
+    /**
+     * Counts the live platform threads.
+     * @return The number of live platform threads.
+     */
+    private ThreadCounts countPlatformThreads() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        int reapers = 0;
+        int others = 0;
+
+        for (final ThreadInfo threadInfo : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds())) {
+            if (threadInfo == null) {
+                continue;
+            }
+
+            if (threadInfo.getThreadName().startsWith(PROCESS_REAPER_THREAD_NAME_PREFIX)) {
+                reapers++;
+            } else {
+                others++;
+            }
+        }
+
+        return new ThreadCounts(
+                reapers,
+                others);
+    }
+
+    /**
+     * Live platform thread counts, with the JDK process reapers counted apart.
+     */
+    private static final class ThreadCounts {
+        private final int reapers;
+        private final int others;
+
+        ThreadCounts(
+                final int reapers,
+                final int others) {
+            this.reapers = reapers;
+            this.others = others;
+        }
+
+        int getReapers() {
+            return this.reapers;
+        }
+
+        int getOthers() {
+            return this.others;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package net.craswell.commands;
 
+import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.Executor;
+import org.apache.commons.exec.PumpStreamHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -101,4 +103,41 @@ class ExecutorTests {
                 0,
                 viewCertificateResult);
     }
+
+    @Test
+    void canCreateRSAPrivateKeyWithVirtualThreadFallback()
+            throws IOException {
+        final Path privateKeyOutputPath = Paths.get(TEST_KEY_OUTPUT);
+
+        final File privateKeyFile = privateKeyOutputPath.toFile();
+        privateKeyFile.deleteOnExit();
+
+        // Surefire runs against the base classes, never the JDK 21 versions in the multi-release JAR.
+        Assertions.assertFalse(
+                EXECUTOR_FACTORY.isVirtualThreadSupported());
+
+        final Executor executor = EXECUTOR_FACTORY.buildVirtual();
+
+        Assertions.assertEquals(
+                DefaultExecutor.class,
+                executor.getClass());
+
+        Assertions.assertEquals(
+                PumpStreamHandler.class,
+                executor.getStreamHandler().getClass());
+
+        Assertions.assertNotNull(
+                executor.getWatchdog());
+
+        final int createPrivateKeyResult = executor.execute(OPEN_SSL_COMMAND_FACTORY.createRSAPrivateKey(
+                TEST_PASS_INPUT,
+                privateKeyFile.getAbsolutePath()));
+
+        Assertions.assertEquals(
+                0,
+                createPrivateKeyResult);
+
+        Assertions.assertTrue(
+                privateKeyFile.exists());
+    }
 }
@@ -0,0 +1,175 @@
+package net.craswell.commands;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.Executor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs against the packaged multi-release JAR, so that the JDK 21 executors are the ones under test.
+ */
+class VirtualThreadOutputIT {
+    private static final String SHELL_BIN = "/bin/sh";
+    private static final long EXECUTION_TIMEOUT_MILLIS = 30L * 1000L;
+
+    /**
+     * Writes well over a pipe buffer (64 KiB) to stdout, with stderr interleaved.
+     */
+    private static final String LARGE_OUTPUT_SCRIPT =
+            "seq 1 20000; echo first error >&2; seq 20001 40000; echo second error >&2";
+
+    /**
+     * Exits immediately, leaving a background descendant that writes to the inherited stdout afterwards.
+     */
+    private static final String DESCENDANT_OUTPUT_SCRIPT = "(sleep 5; echo late) & echo early";
+
+    /**
+     * Well within the descendant's sleep: an execution only takes this long if a pump waited on the descendant.
+     */
+    private static final long DESCENDANT_COMPLETION_TIMEOUT_MILLIS = 3L * 1000L;
+
+    /**
+     * Enough concurrent executions for pumps to race the JDK's drain on exit.
+     */
+    private static final int DESCENDANT_CONCURRENCY = 100;
+
+    private static final ExecutorFactory EXECUTOR_FACTORY = new ExecutorFactory();
+
+    @Test
+    void isVirtualThreadSupported() {
+        Assertions.assertTrue(
+                EXECUTOR_FACTORY.isVirtualThreadSupported(),
+                "The packaged JAR did not select the JDK 21 executors.");
+    }
+
+    @Test
+    void capturesSameOutputAsPlatformExecutor()
+            throws IOException {
+        final CapturedOutput platformOutput = this.execute(
+                false,
+                LARGE_OUTPUT_SCRIPT);
+        final CapturedOutput virtualOutput = this.execute(
+                true,
+                LARGE_OUTPUT_SCRIPT);
+
+        Assertions.assertTrue(
+                platformOutput.getOut().length > 64 * 1024);
+
+        Assertions.assertArrayEquals(
+                platformOutput.getOut(),
+                virtualOutput.getOut());
+
+        Assertions.assertArrayEquals(
+                platformOutput.getErr(),
+                virtualOutput.getErr());
+
+        Assertions.assertEquals(
+                "first error\nsecond error\n",
+                new String(virtualOutput.getErr(), "UTF-8"));
+    }
+
+    @Test
+    void dropsOutputWrittenByDescendantsAfterExit()
+            throws IOException, InterruptedException {
+        // Not compared with the platform executor: whether its blocking read or the JDK's drain on exit wins the
+        // pipe, and so whether "late" is kept, is a race.  See VirtualThreadProcessInputStream.
+        final List<ByteArrayOutputStream> outs = new ArrayList<>();
+        final List<DefaultExecuteResultHandler> resultHandlers = new ArrayList<>();
+
+        for (int i = 0; i < DESCENDANT_CONCURRENCY; i++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final DefaultExecuteResultHandler resultHandler = new DefaultExecuteResultHandler();
+
+            EXECUTOR_FACTORY
+                    .buildVirtual(EXECUTION_TIMEOUT_MILLIS, out, new ByteArrayOutputStream())
+                    .execute(
+                            this.createShellCommandLine(DESCENDANT_OUTPUT_SCRIPT),
+                            resultHandler);
+
+            outs.add(out);
+            resultHandlers.add(resultHandler);
+        }
+
+        for (int i = 0; i < DESCENDANT_CONCURRENCY; i++) {
+            resultHandlers.get(i).waitFor(DESCENDANT_COMPLETION_TIMEOUT_MILLIS);
+
+            Assertions.assertTrue(
+                    resultHandlers.get(i).hasResult(),
+                    "A pump waited on the descendant.");
+
+            Assertions.assertEquals(
+                    "early\n",
+                    new String(outs.get(i).toByteArray(), "UTF-8"));
+        }
+    }
+
+    /**
+     * Executes a shell script, capturing its output.
+     * @param virtual Whether to use the virtual thread executor.
+     * @param script The script to be executed.
+     * @return The captured output.
+     */
+    private CapturedOutput execute(
+            final boolean virtual,
+            final String script)
+            throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        final Executor executor = virtual
+                ? EXECUTOR_FACTORY.buildVirtual(EXECUTION_TIMEOUT_MILLIS, out, err)
+                : EXECUTOR_FACTORY.build(EXECUTION_TIMEOUT_MILLIS, out, err);
+
+        Assertions.assertEquals(
+                0,
+                executor.execute(this.createShellCommandLine(script)));
+
+        return new CapturedOutput(
+                out.toByteArray(),
+                err.toByteArray());
+    }
+
+    /**
+     * Creates a command line that executes a shell script.
+     * @param script The script to be executed.
+     * @return The command line.
+     */
+    private CommandLine createShellCommandLine(final String script) {
+        final CommandLine commandLine = CommandLine.parse(SHELL_BIN);
+        commandLine.addArgument("-c");
+        commandLine.addArgument(
+                script,
+                false);
+
+        return commandLine;
+    }
+
+    /**
+     * The output captured from an execution.
+     */
+    private static final class CapturedOutput {
+        private final byte[] out;
+        private final byte[] err;
+
+        CapturedOutput(
+                final byte[] out,
+                final byte[] err) {
+            this.out = out;
+            this.err = err;
+        }
+
+        byte[] getOut() {
+            return this.out;
+        }
+
+        byte[] getErr() {
+            return this.err;
+        }
+    }
+}